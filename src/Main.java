@@ -1,4 +1,26 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.Scanner;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 class Vertex {
     private OutDegree outDegrees; // a singly linked list of outDegrees for the vertex
@@ -33,7 +55,7 @@ class Vertex {
         OutDegree current = outDegrees;
         OutDegree previous = current;
 
-        if (e.getNeighbor(id).getID() < current.edge.getNeighbor(id).getID())
+        if (e.getNeighbor(id).getID() <= current.edge.getNeighbor(id).getID())
             outDegrees = new OutDegree(e, current);
         else {
             while (idIsGreaterThanCurrent(e, current)) {
@@ -114,26 +136,30 @@ class Edge {
  * vertices are MAX_INT, buildHeap is not necessary. The heap
  * is built a vertex at a time as edges are added to the adjacency list.
  * The queue is constructed with a min (source) vertex and all other added
- * vertices must be MAX_INT.
+ * vertices must be MAX_INT. The capacity is an upper bound, since ids that
+ * never appear in an edge are never added.
  */
 class MyPriorityQueue {
-    private int elementCount, index = 1;
+    private int elementCount;
     private Vertex[] heap;
 
     MyPriorityQueue(int capacity, Vertex min) {
-        elementCount = capacity;
         heap = new Vertex[capacity + 1];
 
-        min.heapIndex = index;
-        heap[index++] = min;
+        min.heapIndex = ++elementCount;
+        heap[elementCount] = min;
     }
 
     public void addVertex(Vertex v) {
         if (v.distance != Integer.MAX_VALUE)
             throw new IllegalArgumentException("Added vertex must have Integer.MAX_VALUE for distance");
 
-        v.heapIndex = index;
-        heap[index++] = v;
+        v.heapIndex = ++elementCount;
+        heap[elementCount] = v;
+    }
+
+    public Vertex peekMin() {
+        return heap[1];
     }
 
     public Vertex deleteMin() {
@@ -291,8 +317,18 @@ class Graph {
         return vertices[v];
     }
 
+    /*
+    Ids that never appear in an edge are skipped, and vertices outside the source's
+    component are printed as unreachable.
+     */
     public void printDistances() {
         for (int v = 1; v < vertices.length; v++) {
+            if (!vertexExist(v))
+                continue;
+            if (vertices[v].distance == Integer.MAX_VALUE) {
+                System.out.println(v + " unreachable");
+                continue;
+            }
             if (v == sourceVertex)
                 System.out.print(vertices[v].getID() + " ");
 
@@ -311,6 +347,9 @@ class Graph {
 
     public void printSpanningTree() {
         for (int v = 1; v < vertices.length; v++) {
+            if (!vertexExist(v))
+                continue;
+
             OutDegree o = vertices[v].getOutDegrees();
 
             while (o != null) {
@@ -327,6 +366,10 @@ class Graph {
         return capacity;
     }
 
+    public int getSourceVertex() {
+        return sourceVertex;
+    }
+
     public Edge getSortedEdges() {
         return sortedEdges;
     }
@@ -392,10 +435,110 @@ class UnionFind {
     }
 }
 
+/**
+ * Labels every vertex with the smallest id in its connected component, using a union-find
+ * that many threads can update at once. A root is only ever linked under a smaller root,
+ * so the links can't form a cycle and each component's root ends up being its smallest id.
+ */
+class ConnectedComponents {
+    private static final int MISSING = 0; // label of ids that never appear in an edge
+
+    private final int[] labels; // indexed by vertex id
+    private final int[] componentLabels; // sorted, so a component's index is found by binary search
+    private final int[] sizes; // indexed by component
+
+    ConnectedComponents(Graph g) {
+        int capacity = g.getCapacity();
+        AtomicIntegerArray parents = new AtomicIntegerArray(capacity + 1);
+        for (int v = 0; v <= capacity; v++)
+            parents.set(v, v);
+
+        IntStream.rangeClosed(1, capacity).parallel().forEach(v -> {
+            Vertex vertex = g.getVertex(v);
+            for (OutDegree o = vertex == null ? null : vertex.getOutDegrees(); o != null; o = o.next) {
+                int neighbor = o.edge.getNeighbor(v).getID();
+                if (neighbor > v)
+                    union(parents, v, neighbor);
+            }
+        });
+
+        labels = new int[capacity + 1];
+        IntStream.rangeClosed(1, capacity).parallel().forEach(v ->
+                labels[v] = g.getVertex(v) == null ? MISSING : find(parents, v));
+
+        componentLabels = IntStream.rangeClosed(1, capacity).filter(v -> labels[v] == v).toArray();
+        sizes = new int[componentLabels.length];
+        for (int v = 1; v <= capacity; v++)
+            if (labels[v] != MISSING)
+                sizes[indexOf(labels[v])]++;
+    }
+
+    private static void union(AtomicIntegerArray parents, int x, int y) {
+        while (true) {
+            int xRoot = find(parents, x);
+            int yRoot = find(parents, y);
+            if (xRoot == yRoot)
+                return;
+
+            int child = Math.max(xRoot, yRoot);
+            if (parents.compareAndSet(child, child, Math.min(xRoot, yRoot)))
+                return;
+        }
+    }
+
+    /*
+    Path halving: every other vertex on the way up is pointed at its grandparent. Losing
+    a race here only skips a shortcut, since parents only ever move closer to the root.
+     */
+    private static int find(AtomicIntegerArray parents, int element) {
+        int parent;
+        while ((parent = parents.get(element)) != element) {
+            int grandparent = parents.get(parent);
+            parents.compareAndSet(element, parent, grandparent);
+            element = grandparent;
+        }
+        return element;
+    }
+
+    /**
+     * @return smallest id in the vertex's component, or 0 if the id isn't in the graph.
+     */
+    public int getLabel(int v) {
+        return labels[v];
+    }
+
+    public int getCount() {
+        return componentLabels.length;
+    }
+
+    public int getComponentLabel(int component) {
+        return componentLabels[component];
+    }
+
+    public int getSize(int component) {
+        return sizes[component];
+    }
+
+    public int indexOf(int label) {
+        return Arrays.binarySearch(componentLabels, label);
+    }
+}
+
+/**
+ * Receives each vertex as Dijkstra adds it to the known set. At that point the vertex's
+ * distance and previous vertex are final.
+ */
+interface SettledVertexListener {
+    void vertexSettled(Vertex v);
+}
+
 class PathFinder {
     private Graph g;
     private MyPriorityQueue pq;
     private int totalSpanningTreeLength = 0;
+    private int settledCount = 0; // vertices settled by all queries so far
+    private ConnectedComponents components;
+    private int[] spanningTreeLengths = new int[0]; // indexed by component
 
     PathFinder(Graph g) {
         this.g = g;
@@ -406,9 +549,51 @@ class PathFinder {
      * finds the shortest path using Dijkstra's algorithm
      */
     public void findShortestPaths() {
-        while (!pq.isEmpty()) {
-            Vertex min = pq.deleteMin();
+        findShortestPaths(Integer.MAX_VALUE, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * finds the shortest paths to only the vertices within the given distance of the source.
+     * Each vertex is passed to the listener as soon as its distance is final.
+     */
+    public void findShortestPathsWithin(int radius, SettledVertexListener listener) {
+        if (radius < 0)
+            throw new IllegalArgumentException("radius must not be negative");
+
+        findShortestPaths(radius, Integer.MAX_VALUE, listener);
+    }
+
+    /**
+     * finds the shortest paths to the k vertices nearest the source (source included).
+     * Each vertex is passed to the listener as soon as its distance is final. Vertices
+     * settled by earlier queries count toward k.
+     */
+    public void findNearest(int k, SettledVertexListener listener) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be greater than zero");
+
+        findShortestPaths(Integer.MAX_VALUE, k, listener);
+    }
+
+    /*
+    Dijkstra settles vertices in order of distance, so the search can stop at the first
+    vertex past the radius or once k vertices are settled. A vertex still at MAX_INT is
+    unreachable, and so is everything after it in the heap. The min is only removed once
+    it is settled, so a later, wider query carries on where this one stopped and only
+    passes the newly settled vertices to its listener.
+     */
+    private void findShortestPaths(int radius, int k, SettledVertexListener listener) {
+        while (!pq.isEmpty() && settledCount < k) {
+            Vertex min = pq.peekMin();
+            if (min.distance == Integer.MAX_VALUE || min.distance > radius)
+                return;
+
+            pq.deleteMin();
             min.isKnown = true;
+            settledCount++;
+            if (listener != null)
+                listener.vertexSettled(min);
+
             OutDegree o = g.getVertex(min.getID()).getOutDegrees();
 
             while (o != null) {
@@ -432,42 +617,1014 @@ class PathFinder {
     }
 
     /**
-     * finds the minimum spanning tree using Kruskal's algorithm
+     * finds the minimum spanning forest using Kruskal's algorithm, one tree per connected
+     * component. The components are independent, so their trees are found in parallel.
      */
     public void findMinimumSpanningTree() {
+        components = new ConnectedComponents(g);
+        Edge[][] edgesByComponent = groupSortedEdgesByComponent();
+        spanningTreeLengths = new int[components.getCount()];
+
+        // safe to share since each component only touches the sets of its own vertices
         UnionFind u = new UnionFind(g.getCapacity() + 1);
-        Edge e = g.getSortedEdges();
 
-        while (e != null) {
+        IntStream.range(0, components.getCount()).parallel().forEach(c ->
+                spanningTreeLengths[c] = findMinimumSpanningTree(edgesByComponent[c], components.getSize(c) - 1, u));
+
+        totalSpanningTreeLength = 0;
+        for (int length : spanningTreeLengths)
+            totalSpanningTreeLength += length;
+    }
+
+    /*
+    Splits the sorted edge list by component, keeping each component's edges sorted.
+     */
+    private Edge[][] groupSortedEdgesByComponent() {
+        int[] edgeCounts = new int[components.getCount()];
+        for (Edge e = g.getSortedEdges(); e != null; e = e.next)
+            edgeCounts[componentOf(e)]++;
+
+        Edge[][] edgesByComponent = new Edge[edgeCounts.length][];
+        for (int c = 0; c < edgeCounts.length; c++)
+            edgesByComponent[c] = new Edge[edgeCounts[c]];
+
+        int[] filled = new int[edgeCounts.length];
+        for (Edge e = g.getSortedEdges(); e != null; e = e.next) {
+            int c = componentOf(e);
+            edgesByComponent[c][filled[c]++] = e;
+        }
+        return edgesByComponent;
+    }
+
+    private int componentOf(Edge e) {
+        return components.indexOf(components.getLabel(e.getLeftID()));
+    }
+
+    /*
+    A tree over n vertices has n - 1 edges, so the rest of the edges can be skipped once
+    that many have been taken.
+     */
+    private int findMinimumSpanningTree(Edge[] sortedEdges, int treeSize, UnionFind u) {
+        int length = 0, treeEdges = 0;
+
+        for (int i = 0; i < sortedEdges.length && treeEdges < treeSize; i++) {
+            Edge e = sortedEdges[i];
             int x = e.getLeftID();
             int y = e.getRightID();
 
             if (u.find(x) != u.find(y)) {
                 e.isMinimumSpanning = true;
                 u.union(x, y);
-                totalSpanningTreeLength += e.getWeight();
+                length += e.getWeight();
+                treeEdges++;
             }
-            e = e.next;
         }
+        return length;
     }
 
     public void printResults() {
         g.printDistances();
         System.out.println();
         g.printSpanningTree();
+        printComponentLengths();
+        System.out.println("Minimal spanning tree length = " + totalSpanningTreeLength);
+    }
+
+    /*
+    Only printed when the input is disconnected, so connected output is unchanged.
+     */
+    private void printComponentLengths() {
+        if (spanningTreeLengths.length < 2)
+            return;
+
+        for (int c = 0; c < spanningTreeLengths.length; c++)
+            System.out.println("Component " + components.getComponentLabel(c)
+                    + " spanning tree length = " + spanningTreeLengths[c]);
+    }
+
+    /**
+     * @return null until the minimum spanning tree has been found.
+     */
+    public ConnectedComponents getComponents() {
+        return components;
+    }
+
+    public int[] getSpanningTreeLengths() {
+        return spanningTreeLengths;
+    }
+
+    public int getTotalSpanningTreeLength() {
+        return totalSpanningTreeLength;
+    }
+}
+
+/**
+ * The graph's adjacency lists copied into flat arrays, which many searches can read at
+ * once without touching any Vertex or MyPriorityQueue state. The graph can still be used
+ * by a PathFinder afterwards.
+ */
+class AdjacencyArrays {
+    final int capacity;
+    final int[] firstOutDegree; // outDegrees of v are at [firstOutDegree[v], firstOutDegree[v + 1])
+    final int[] neighbors;
+    final int[] weights;
+
+    AdjacencyArrays(Graph g) {
+        capacity = g.getCapacity();
+        firstOutDegree = new int[capacity + 2];
+
+        for (int v = 1; v <= capacity; v++)
+            firstOutDegree[v + 1] = firstOutDegree[v] + countOutDegrees(g.getVertex(v));
+
+        neighbors = new int[firstOutDegree[capacity + 1]];
+        weights = new int[neighbors.length];
+
+        for (int v = 1; v <= capacity; v++) {
+            int i = firstOutDegree[v];
+            for (OutDegree o = outDegreesOf(g.getVertex(v)); o != null; o = o.next, i++) {
+                neighbors[i] = o.edge.getNeighbor(v).getID();
+                weights[i] = o.edge.getWeight();
+            }
+        }
+    }
+
+    private static OutDegree outDegreesOf(Vertex v) {
+        return v == null ? null : v.getOutDegrees();
+    }
+
+    private static int countOutDegrees(Vertex v) {
+        int count = 0;
+        for (OutDegree o = outDegreesOf(v); o != null; o = o.next)
+            count++;
+
+        return count;
+    }
+
+    public void checkID(int id) {
+        if (id < 1 || id > capacity)
+            throw new IllegalArgumentException("vertex " + id + " is not in [1, " + capacity + "]");
+    }
+}
+
+/**
+ * The same binary min heap as MyPriorityQueue, but over vertex ids with the priorities
+ * kept in the heap, so that each search thread can have its own. Only reached vertices
+ * are in the heap.
+ */
+class VertexHeap {
+    private final int[] heap;
+    private final int[] heapIndex; // indexed by vertex id, 0 if not in the heap
+    private final int[] priority; // indexed by vertex id
+    private int elementCount;
+
+    VertexHeap(int capacity) {
+        heap = new int[capacity + 1];
+        heapIndex = new int[capacity + 1];
+        priority = new int[capacity + 1];
+    }
+
+    /**
+     * adds the vertex, or lowers its priority if it's already in the heap.
+     */
+    public void offer(int v, int p) {
+        priority[v] = p;
+        if (heapIndex[v] == 0) {
+            heap[++elementCount] = v;
+            heapIndex[v] = elementCount;
+        }
+        percolateUp(heapIndex[v]);
+    }
+
+    public int deleteMin() {
+        int min = heap[1];
+        swap(1, elementCount--);
+        heapIndex[min] = 0;
+        percolateDown(1);
+        return min;
+    }
+
+    private void percolateUp(int child) {
+        while (child > 1 && priority[heap[child]] < priority[heap[child / 2]]) {
+            swap(child, child / 2);
+            child /= 2;
+        }
+    }
+
+    private void percolateDown(int parent) {
+        int child;
+        while ((child = 2 * parent) <= elementCount) {
+            if (child < elementCount && priority[heap[child + 1]] < priority[heap[child]])
+                child++;
+            if (priority[heap[child]] >= priority[heap[parent]])
+                return;
+
+            swap(child, parent);
+            parent = child;
+        }
+    }
+
+    private void swap(int x, int y) {
+        int temp = heap[x];
+        heap[x] = heap[y];
+        heap[y] = temp;
+
+        heapIndex[heap[x]] = x;
+        heapIndex[heap[y]] = y;
+    }
+
+    public boolean isEmpty() {
+        return elementCount == 0;
+    }
+
+    public void clear() {
+        while (elementCount > 0)
+            heapIndex[heap[elementCount--]] = 0;
+    }
+}
+
+/**
+ * Computes a table of shortest distances from every source to every target. The graph is
+ * copied once into AdjacencyArrays that all searches share. The searches are split into
+ * one range per worker, and each range reuses one set of search arrays that is dropped
+ * when the table is done.
+ */
+class DistanceTable {
+    private final AdjacencyArrays graph;
+
+    DistanceTable(Graph g) {
+        graph = new AdjacencyArrays(g);
+    }
+
+    /**
+     * @return row-major table where [s * targets.length + t] is the distance from
+     * sources[s] to targets[t], or Integer.MAX_VALUE if the target is unreachable.
+     */
+    public int[] compute(int[] sources, int[] targets) {
+        for (int id : sources)
+            graph.checkID(id);
+        for (int id : targets)
+            graph.checkID(id);
+        int[] table;
+        try {
+            table = new int[Math.multiplyExact(sources.length, targets.length)];
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("a " + sources.length + " x " + targets.length
+                    + " table has more than Integer.MAX_VALUE entries");
+        }
+
+        /*
+        Edges are undirected, so a search from a target gives its whole column. Searching
+        from whichever side is smaller runs min(S, T) searches instead of S.
+         */
+        if (targets.length < sources.length)
+            searchAll(targets, sources, table, 1, targets.length);
+        else
+            searchAll(sources, targets, table, targets.length, 1);
+
+        return table;
+    }
+
+    /*
+    Search i writes the distance to ends[j] at table[i * originStride + j * endStride].
+     */
+    private void searchAll(int[] origins, int[] ends, int[] table, int originStride, int endStride) {
+        boolean[] isEnd = new boolean[graph.capacity + 1];
+        int distinctEnds = 0;
+        for (int v : ends) {
+            if (!isEnd[v]) {
+                isEnd[v] = true;
+                distinctEnds++;
+            }
+        }
+        final int endCount = distinctEnds;
+        int ranges = Math.min(origins.length, ForkJoinPool.getCommonPoolParallelism());
+
+        IntStream.range(0, ranges).parallel().forEach(r -> {
+            Search search = new Search();
+            int last = rangeStart(r + 1, ranges, origins.length);
+
+            for (int i = rangeStart(r, ranges, origins.length); i < last; i++) {
+                search.run(origins[i], isEnd, endCount);
+
+                for (int j = 0; j < ends.length; j++)
+                    table[i * originStride + j * endStride] = search.distance[ends[j]];
+
+                search.reset();
+            }
+        });
+    }
+
+    /**
+     * @return first index of range r when [0, count) is split into the given number of ranges.
+     */
+    static int rangeStart(int r, int ranges, int count) {
+        return (int) ((long) count * r / ranges);
+    }
+
+    /**
+     * One Dijkstra search over the flat arrays. Only vertices the search touched are
+     * reset afterwards.
+     */
+    private class Search {
+        private final int[] distance = new int[graph.capacity + 1];
+        private final boolean[] isKnown = new boolean[graph.capacity + 1];
+        private final VertexHeap heap = new VertexHeap(graph.capacity);
+        private final int[] touched = new int[graph.capacity];
+        private int touchedCount;
+
+        Search() {
+            Arrays.fill(distance, Integer.MAX_VALUE);
+        }
+
+        /*
+        Stops as soon as every end vertex is known, since the rest of the graph can't
+        change their distances.
+         */
+        void run(int origin, boolean[] isEnd, int remainingEnds) {
+            reach(origin, 0);
+
+            while (!heap.isEmpty() && remainingEnds > 0) {
+                int min = heap.deleteMin();
+                isKnown[min] = true;
+                if (isEnd[min])
+                    remainingEnds--;
+
+                for (int i = graph.firstOutDegree[min]; i < graph.firstOutDegree[min + 1]; i++) {
+                    int neighbor = graph.neighbors[i];
+                    int currentDistance = distance[min] + graph.weights[i];
+
+                    if (!isKnown[neighbor] && currentDistance < distance[neighbor])
+                        reach(neighbor, currentDistance);
+                }
+            }
+        }
+
+        private void reach(int v, int d) {
+            if (distance[v] == Integer.MAX_VALUE)
+                touched[touchedCount++] = v;
+            distance[v] = d;
+            heap.offer(v, d);
+        }
+
+        void reset() {
+            while (touchedCount > 0) {
+                int v = touched[--touchedCount];
+                distance[v] = Integer.MAX_VALUE;
+                isKnown[v] = false;
+            }
+            heap.clear();
+        }
+    }
+}
+
+/**
+ * A loopless path given by its vertex ids from start to end.
+ */
+class Path implements Comparable<Path> {
+    private final int[] vertices;
+    private final int cost;
+
+    Path(int[] vertices, int cost) {
+        this.vertices = vertices;
+        this.cost = cost;
+    }
+
+    public int[] getVertices() {
+        return vertices;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public int length() {
+        return vertices.length;
+    }
+
+    public int getVertex(int i) {
+        return vertices[i];
+    }
+
+    /*
+    Paths with the same costs are ordered by their vertices so results don't depend
+    on which spur search finished first.
+     */
+    @Override
+    public int compareTo(Path other) {
+        if (cost != other.cost)
+            return Integer.compare(cost, other.cost);
+        if (vertices.length != other.vertices.length)
+            return Integer.compare(vertices.length, other.vertices.length);
+
+        for (int i = 0; i < vertices.length; i++)
+            if (vertices[i] != other.vertices[i])
+                return Integer.compare(vertices[i], other.vertices[i]);
+
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Path && Arrays.equals(vertices, ((Path) o).vertices);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(vertices);
+    }
+}
+
+interface PathListener {
+    void pathFound(Path p);
+}
+
+/**
+ * Finds the k shortest loopless paths between two vertices using Yen's algorithm.
+ *
+ * One full Dijkstra search from the target gives a reverse shortest path tree. The tree
+ * gives the first path directly, and its distances are an exact lower bound on how far
+ * any vertex is from the target, so each spur search is an A* search that heads almost
+ * straight for the target. Spur searches mask vertices and edges with marks in their own
+ * arrays instead of copying the graph. The spur searches along one path are split into
+ * one range per worker and run in parallel, and each range's search arrays live only
+ * as long as the call to find. Parallel edges count as one edge with the lowest weight.
+ */
+class KShortestPaths {
+    private final AdjacencyArrays graph;
+    private final int source, target;
+    private final int[] distanceToTarget; // indexed by vertex id, MAX_INT if the target can't be reached
+    private final int[] nextToTarget; // next vertex on the tree path to the target
+
+    KShortestPaths(Graph g, int source, int target) {
+        graph = new AdjacencyArrays(g);
+        graph.checkID(source);
+        graph.checkID(target);
+
+        this.source = source;
+        this.target = target;
+        distanceToTarget = new int[graph.capacity + 1];
+        nextToTarget = new int[graph.capacity + 1];
+        findReverseTree();
+    }
+
+    private void findReverseTree() {
+        boolean[] isKnown = new boolean[graph.capacity + 1];
+        VertexHeap heap = new VertexHeap(graph.capacity);
+        Arrays.fill(distanceToTarget, Integer.MAX_VALUE);
+
+        distanceToTarget[target] = 0;
+        heap.offer(target, 0);
+
+        while (!heap.isEmpty()) {
+            int min = heap.deleteMin();
+            isKnown[min] = true;
+
+            for (int i = graph.firstOutDegree[min]; i < graph.firstOutDegree[min + 1]; i++) {
+                int neighbor = graph.neighbors[i];
+                int currentDistance = distanceToTarget[min] + graph.weights[i];
+
+                if (!isKnown[neighbor] && currentDistance < distanceToTarget[neighbor]) {
+                    distanceToTarget[neighbor] = currentDistance;
+                    nextToTarget[neighbor] = min;
+                    heap.offer(neighbor, currentDistance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes up to k paths to the listener from cheapest to most expensive. Each path is
+     * passed on as soon as it is known to be the next one.
+     */
+    public void find(int k, PathListener listener) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be greater than zero");
+        if (distanceToTarget[source] == Integer.MAX_VALUE)
+            return;
+
+        List<Path> found = new ArrayList<>();
+        PriorityQueue<Path> candidates = new PriorityQueue<>();
+        Set<Path> seen = new HashSet<>();
+        SpurSearch[] searches = new SpurSearch[ForkJoinPool.getCommonPoolParallelism()];
+
+        Path next = treePathFrom(source);
+        seen.add(next);
+
+        while (next != null) {
+            found.add(next);
+            listener.pathFound(next);
+            if (found.size() == k)
+                return;
+
+            Path previous = next;
+            int spurCount = previous.length() - 1;
+            int ranges = Math.max(1, Math.min(spurCount, searches.length));
+            Path[] spurPaths = new Path[spurCount];
+
+            // each range index is run by one task at a time, so it can reuse its search
+            IntStream.range(0, ranges).parallel().forEach(r -> {
+                if (searches[r] == null)
+                    searches[r] = new SpurSearch();
+                int last = DistanceTable.rangeStart(r + 1, ranges, spurCount);
+
+                for (int i = DistanceTable.rangeStart(r, ranges, spurCount); i < last; i++)
+                    spurPaths[i] = searches[r].run(previous, i, found);
+            });
+
+            for (Path p : spurPaths)
+                if (p != null && seen.add(p))
+                    candidates.add(p);
+
+            next = candidates.poll();
+        }
+    }
+
+    private Path treePathFrom(int v) {
+        int[] vertices = new int[countTreeVertices(v)];
+        for (int i = 0; i < vertices.length; i++, v = nextToTarget[v])
+            vertices[i] = v;
+
+        return new Path(vertices, distanceToTarget[vertices[0]]);
+    }
+
+    private int countTreeVertices(int v) {
+        int count = 1;
+        for (; v != target; v = nextToTarget[v])
+            count++;
+
+        return count;
+    }
+
+    private int weightBetween(int u, int v) {
+        int weight = Integer.MAX_VALUE;
+        for (int i = graph.firstOutDegree[u]; i < graph.firstOutDegree[u + 1]; i++)
+            if (graph.neighbors[i] == v)
+                weight = Math.min(weight, graph.weights[i]);
+
+        return weight;
+    }
+
+    /**
+     * An A* search from one spur vertex of a path, ranked by distance so far plus the
+     * reverse tree distance to the target. Vertices are masked by stamping them with the
+     * current search number, so nothing needs clearing between searches.
+     */
+    private class SpurSearch {
+        private final int[] distance = new int[graph.capacity + 1];
+        private final int[] previous = new int[graph.capacity + 1];
+        private final int[] blocked = new int[graph.capacity + 1]; // == stamp if masked
+        private final int[] known = new int[graph.capacity + 1]; // == stamp if known
+        private final int[] reached = new int[graph.capacity + 1]; // == stamp if distance is set
+        private final VertexHeap heap = new VertexHeap(graph.capacity);
+        private int stamp;
+
+        /*
+        The root is the first spurIndex + 1 vertices of the previous path. Its vertices
+        other than the spur are masked, as are the edges out of the spur taken by found
+        paths that share the root, so the spur path leaves the root in a new way.
+         */
+        Path run(Path previousPath, int spurIndex, List<Path> found) {
+            stamp++;
+            heap.clear();
+            int spur = previousPath.getVertex(spurIndex);
+            int rootCost = 0;
+
+            for (int i = 0; i < spurIndex; i++) {
+                blocked[previousPath.getVertex(i)] = stamp;
+                rootCost += weightBetween(previousPath.getVertex(i), previousPath.getVertex(i + 1));
+            }
+
+            int[] blockedNeighbors = new int[found.size()];
+            int blockedCount = 0;
+            for (Path p : found)
+                if (p.length() > spurIndex + 1 && sharesRoot(p, previousPath, spurIndex))
+                    blockedNeighbors[blockedCount++] = p.getVertex(spurIndex + 1);
+
+            if (!search(spur, blockedNeighbors, blockedCount))
+                return null;
+
+            int spurLength = 1;
+            for (int v = target; v != spur; v = previous[v])
+                spurLength++;
+
+            int[] vertices = new int[spurIndex + spurLength];
+            System.arraycopy(previousPath.getVertices(), 0, vertices, 0, spurIndex);
+            for (int i = vertices.length - 1, v = target; i >= spurIndex; i--, v = previous[v])
+                vertices[i] = v;
+
+            return new Path(vertices, rootCost + distance[target]);
+        }
+
+        private boolean sharesRoot(Path p, Path previousPath, int spurIndex) {
+            for (int i = 0; i <= spurIndex; i++)
+                if (p.getVertex(i) != previousPath.getVertex(i))
+                    return false;
+
+            return true;
+        }
+
+        private boolean search(int spur, int[] blockedNeighbors, int blockedCount) {
+            reach(spur, 0, 0);
+
+            while (!heap.isEmpty()) {
+                int min = heap.deleteMin();
+                if (min == target)
+                    return true;
+                known[min] = stamp;
+
+                for (int i = graph.firstOutDegree[min]; i < graph.firstOutDegree[min + 1]; i++) {
+                    int neighbor = graph.neighbors[i];
+                    if (known[neighbor] == stamp || blocked[neighbor] == stamp
+                            || distanceToTarget[neighbor] == Integer.MAX_VALUE
+                            || (min == spur && contains(blockedNeighbors, blockedCount, neighbor)))
+                        continue;
+
+                    int currentDistance = distance[min] + graph.weights[i];
+                    if (reached[neighbor] != stamp || currentDistance < distance[neighbor])
+                        reach(neighbor, currentDistance, min);
+                }
+            }
+            return false;
+        }
+
+        private void reach(int v, int d, int from) {
+            reached[v] = stamp;
+            distance[v] = d;
+            previous[v] = from;
+            heap.offer(v, d + distanceToTarget[v]);
+        }
+
+        private boolean contains(int[] values, int count, int value) {
+            for (int i = 0; i < count; i++)
+                if (values[i] == value)
+                    return true;
+
+            return false;
+        }
+    }
+}
+
+/**
+ * A snapshot holds the loaded edge list together with the Dijkstra, component and Kruskal results so
+ * that the same input can be answered again without building the graph or searching it.
+ * Snapshots are keyed by a SHA-256 hash of the raw input and end with a CRC32 checksum of
+ * everything before it. Loading memory maps the file, and a snapshot that is missing,
+ * truncated or for different input is treated as a miss.
+ */
+class Snapshot {
+    private static final int MAGIC = 0x50465331; // "PFS1"
+    private static final int VERSION = 2;
+    private static final int NO_VERTEX = 0; // vertex ids start at 1
+
+    private final int capacity;
+    private final int sourceVertex;
+    private final int totalSpanningTreeLength;
+    private final int[] distances; // indexed by vertex id
+    private final int[] previous; // indexed by vertex id, NO_VERTEX if there is none
+    private final int[] labels; // indexed by vertex id, NO_VERTEX for ids not in the graph
+    private final int[] componentLabels; // sorted
+    private final int[] spanningTreeLengths; // indexed by component
+    private final int[] edges; // left, right and weight of each edge in sorted (by weight) order
+    private final boolean[] isMinimumSpanning; // indexed by edge
+
+    private Snapshot(int capacity, int sourceVertex, int totalSpanningTreeLength,
+                     int[] distances, int[] previous, int[] labels, int[] componentLabels,
+                     int[] spanningTreeLengths, int[] edges, boolean[] isMinimumSpanning) {
+        this.capacity = capacity;
+        this.sourceVertex = sourceVertex;
+        this.totalSpanningTreeLength = totalSpanningTreeLength;
+        this.distances = distances;
+        this.previous = previous;
+        this.labels = labels;
+        this.componentLabels = componentLabels;
+        this.spanningTreeLengths = spanningTreeLengths;
+        this.edges = edges;
+        this.isMinimumSpanning = isMinimumSpanning;
+    }
+
+    /**
+     * Must be called after the path finder has run and before its results are printed,
+     * since printing the spanning tree clears the edge flags.
+     */
+    public static Snapshot capture(Graph g, PathFinder pf) {
+        int capacity = g.getCapacity();
+        ConnectedComponents components = pf.getComponents();
+        int[] distances = new int[capacity + 1];
+        int[] previous = new int[capacity + 1];
+        int[] labels = new int[capacity + 1];
+
+        for (int v = 1; v <= capacity; v++) {
+            Vertex vertex = g.getVertex(v);
+            distances[v] = vertex == null ? Integer.MAX_VALUE : vertex.distance;
+            previous[v] = vertex == null || vertex.previous == null ? NO_VERTEX : vertex.previous.getID();
+            labels[v] = components.getLabel(v);
+        }
+
+        int[] componentLabels = new int[components.getCount()];
+        for (int c = 0; c < componentLabels.length; c++)
+            componentLabels[c] = components.getComponentLabel(c);
+
+        int edgeCount = 0;
+        for (Edge e = g.getSortedEdges(); e != null; e = e.next)
+            edgeCount++;
+
+        int[] edges = new int[3 * edgeCount];
+        boolean[] isMinimumSpanning = new boolean[edgeCount];
+        int i = 0;
+        for (Edge e = g.getSortedEdges(); e != null; e = e.next, i++) {
+            edges[3 * i] = e.getLeftID();
+            edges[3 * i + 1] = e.getRightID();
+            edges[3 * i + 2] = e.getWeight();
+            isMinimumSpanning[i] = e.isMinimumSpanning;
+        }
+
+        return new Snapshot(capacity, g.getSourceVertex(), pf.getTotalSpanningTreeLength(),
+                distances, previous, labels, componentLabels, pf.getSpanningTreeLengths().clone(),
+                edges, isMinimumSpanning);
+    }
+
+    /**
+     * @return hex encoded SHA-256 of the input, used as the snapshot key.
+     */
+    public static String keyOf(byte[] input) {
+        try {
+            StringBuilder key = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(input))
+                key.append(String.format("%02x", b));
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static File fileFor(File directory, String key) {
+        return new File(directory, key + ".snapshot");
+    }
+
+    /*
+    Written to a uniquely named temporary file first and then moved into place, so that a
+    reader never sees a half written snapshot under the real name and runs saving the same
+    input at once don't write into each other's file.
+     */
+    public void save(File file, String key) throws IOException {
+        java.nio.file.Path temp = new File(file.getPath() + "." + UUID.randomUUID() + ".tmp").toPath();
+
+        // unlike Files.createTempFile this follows the umask, so other accounts can read the snapshot
+        OutputStream tempOut = Files.newOutputStream(temp,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            write(tempOut, key);
+            Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp); // only still there if writing or moving failed
+        }
+    }
+
+    private void write(OutputStream tempOut, String key) throws IOException {
+        CRC32 checksum = new CRC32();
+
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(tempOut), checksum))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key);
+            out.writeInt(capacity);
+            out.writeInt(sourceVertex);
+            out.writeInt(totalSpanningTreeLength);
+            out.writeInt(componentLabels.length);
+            out.writeInt(isMinimumSpanning.length);
+
+            for (int d : distances)
+                out.writeInt(d);
+            for (int p : previous)
+                out.writeInt(p);
+            for (int l : labels)
+                out.writeInt(l);
+            for (int l : componentLabels)
+                out.writeInt(l);
+            for (int l : spanningTreeLengths)
+                out.writeInt(l);
+            for (int x : edges)
+                out.writeInt(x);
+            for (boolean b : isMinimumSpanning)
+                out.writeBoolean(b);
+
+            out.flush();
+            out.writeLong(checksum.getValue()); // not part of its own checksum
+        }
+    }
+
+    /**
+     * @return the snapshot for the given key, or null if there is no valid one.
+     */
+    public static Snapshot load(File file, String key) {
+        if (!file.isFile())
+            return null;
+
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return isIntact(buffer) ? read(buffer, key) : null;
+        } catch (IOException | RuntimeException e) {
+            return null; // unreadable or corrupt snapshots are recomputed and overwritten
+        }
+    }
+
+    private static boolean isIntact(ByteBuffer buffer) {
+        int bodyLength = buffer.limit() - Long.BYTES;
+        if (bodyLength < 0)
+            return false;
+
+        ByteBuffer body = buffer.duplicate();
+        body.limit(bodyLength);
+        CRC32 checksum = new CRC32();
+        checksum.update(body);
+
+        return checksum.getValue() == buffer.getLong(bodyLength);
+    }
+
+    private static Snapshot read(ByteBuffer buffer, String key) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            return null;
+
+        byte[] storedKey = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(storedKey);
+        if (!key.equals(new String(storedKey, "UTF-8")))
+            return null;
+
+        int capacity = buffer.getInt();
+        int sourceVertex = buffer.getInt();
+        int totalSpanningTreeLength = buffer.getInt();
+        int componentCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+
+        int[] distances = readInts(buffer, capacity + 1);
+        int[] previous = readInts(buffer, capacity + 1);
+        int[] labels = readInts(buffer, capacity + 1);
+        int[] componentLabels = readInts(buffer, componentCount);
+        int[] spanningTreeLengths = readInts(buffer, componentCount);
+        int[] edges = readInts(buffer, 3 * edgeCount);
+        boolean[] isMinimumSpanning = new boolean[edgeCount];
+        for (int i = 0; i < edgeCount; i++)
+            isMinimumSpanning[i] = buffer.get() != 0;
+
+        return new Snapshot(capacity, sourceVertex, totalSpanningTreeLength,
+                distances, previous, labels, componentLabels, spanningTreeLengths,
+                edges, isMinimumSpanning);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Prints exactly what PathFinder.printResults prints for the same input.
+     */
+    public void printResults() {
+        printDistances();
+        System.out.println();
+        printSpanningTree();
+        if (componentLabels.length > 1)
+            for (int c = 0; c < componentLabels.length; c++)
+                System.out.println("Component " + componentLabels[c]
+                        + " spanning tree length = " + spanningTreeLengths[c]);
         System.out.println("Minimal spanning tree length = " + totalSpanningTreeLength);
     }
+
+    private void printDistances() {
+        int[] path = new int[capacity + 1];
+
+        for (int v = 1; v <= capacity; v++) {
+            if (labels[v] == NO_VERTEX)
+                continue;
+            if (distances[v] == Integer.MAX_VALUE) {
+                System.out.println(v + " unreachable");
+                continue;
+            }
+
+            StringBuilder line = new StringBuilder();
+            if (v == sourceVertex)
+                line.append(v).append(' ');
+
+            int length = 0;
+            for (int p = v; p != NO_VERTEX; p = previous[p])
+                path[length++] = p;
+            while (length > 0)
+                line.append(path[--length]).append(' ');
+
+            System.out.println(line.append(distances[v]));
+        }
+    }
+
+    /*
+    Graph.printSpanningTree prints each tree edge once, from its lower id end, walking
+    vertices and their sorted neighbors in id order. Sorting the tree edges by
+    (lower id, higher id) gives the same lines.
+     */
+    private void printSpanningTree() {
+        int treeEdges = 0;
+        for (boolean b : isMinimumSpanning)
+            if (b)
+                treeEdges++;
+
+        long[] sorted = new long[treeEdges];
+        int i = 0;
+        for (int e = 0; e < isMinimumSpanning.length; e++) {
+            if (isMinimumSpanning[e]) {
+                long low = Math.min(edges[3 * e], edges[3 * e + 1]);
+                long high = Math.max(edges[3 * e], edges[3 * e + 1]);
+                sorted[i++] = low << 32 | high;
+            }
+        }
+        Arrays.sort(sorted);
+
+        for (long edge : sorted)
+            System.out.println((edge >>> 32) + " " + (int) edge);
+    }
 }
 
 public class Main {
-    private final Scanner input;
+    private final InputStream in;
+    private final File snapshotDirectory; // null if snapshots are disabled
+    private Scanner input;
     private Graph g;
 
-    public Main(java.io.InputStream in) {
-        input = new Scanner(in);
+    public Main(InputStream in) {
+        this(in, null);
+    }
+
+    /**
+     * Results are saved to and reused from the snapshot directory, keyed by the input.
+     */
+    public Main(InputStream in, File snapshotDirectory) {
+        this.in = in;
+        this.snapshotDirectory = snapshotDirectory;
     }
 
     public void run() {
+        if (snapshotDirectory == null) {
+            readGraph(in);
+            runPathFinder();
+        } else
+            runWithSnapshot();
+    }
+
+    /*
+    The whole input has to be read to know its key, so it is buffered and only parsed
+    into a graph when there is no snapshot for it.
+     */
+    private void runWithSnapshot() {
+        try {
+            byte[] bytes = readAllBytes(in);
+            String key = Snapshot.keyOf(bytes);
+            File file = Snapshot.fileFor(snapshotDirectory, key);
+            Snapshot snapshot = Snapshot.load(file, key);
+
+            if (snapshot == null) {
+                readGraph(new ByteArrayInputStream(bytes));
+                PathFinder pf = new PathFinder(g);
+                pf.findShortestPaths();
+                pf.findMinimumSpanningTree();
+                Snapshot computed = Snapshot.capture(g, pf); // before printing clears the tree flags
+                pf.printResults();
+                trySave(computed, file, key);
+            } else
+                snapshot.printResults();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+    A snapshot is only a cache, so failing to save one is reported and the run goes on.
+     */
+    private void trySave(Snapshot snapshot, File file, String key) {
+        try {
+            if (!snapshotDirectory.isDirectory() && !snapshotDirectory.mkdirs() && !snapshotDirectory.isDirectory())
+                throw new IOException("could not create " + snapshotDirectory);
+
+            snapshot.save(file, key);
+        } catch (IOException e) {
+            System.err.println("Could not save snapshot " + file + ": " + e);
+        }
+    }
+
+    private byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int n;
+
+        while ((n = in.read(buffer)) != -1)
+            bytes.write(buffer, 0, n);
+
+        return bytes.toByteArray();
+    }
+
+    private void readGraph(InputStream in) {
+        input = new Scanner(in);
         initializeWithFirstLine();
         String[] tokens;
         tokens = input.nextLine().split(" ");
@@ -476,7 +1633,6 @@ public class Main {
             addEdge(tokens);
             tokens = input.nextLine().split(" ");
         }
-        runPathFinder();
     }
 
     private void initializeWithFirstLine() {
@@ -514,7 +1670,8 @@ public class Main {
     }
 
     public static void main(String[] args) {
-        Main program = new Main(System.in);
+        File snapshotDirectory = args.length > 0 ? new File(args[0]) : null;
+        Main program = new Main(System.in, snapshotDirectory);
         program.run();
     }
 }
@@ -0,0 +1,438 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes large synthetic edge lists in the format Main reads without holding the graph in
+ * memory. Every edge is a pure function of the seed and its index, so the edges are made
+ * in fixed size chunks on several threads and written in order, and the output only
+ * depends on the seed. At most a few chunks per thread are held at any time.
+ */
+public class GraphGenerator {
+    private static final int CHUNK_SIZE = 1 << 16; // edges per chunk
+
+    private final Family family;
+    private final Weights weights;
+    private final long seed;
+    private final int threads;
+
+    GraphGenerator(Family family, Weights weights, long seed) {
+        this(family, weights, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    GraphGenerator(Family family, Weights weights, long seed, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be greater than zero");
+
+        this.family = family;
+        this.weights = weights;
+        this.seed = seed;
+        this.threads = threads;
+        weights.prepare(family.edgeCount(), new SplittableRandom(seed));
+    }
+
+    public void writeTo(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 20)) {
+            writeTo(out);
+        }
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        long edgeCount = family.edgeCount();
+        long chunkCount = (edgeCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int sourceVertex = new SplittableRandom(seed).nextInt(family.vertexCount()) + 1;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+        try {
+            out.write(toBytes(family.vertexCount() + " " + sourceVertex + "\n"));
+
+            for (long chunk = 0; chunk < chunkCount; chunk++) {
+                long first = chunk * CHUNK_SIZE;
+                long last = Math.min(edgeCount, first + CHUNK_SIZE);
+                SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + chunk);
+                pending.add(pool.submit(() -> writeChunk(first, last, random)));
+
+                if (pending.size() >= 2 * threads)
+                    out.write(pending.remove().get());
+            }
+            while (!pending.isEmpty())
+                out.write(pending.remove().get());
+
+            out.write(toBytes("0 0 0\n")); // sentinel
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while generating edges");
+        } catch (ExecutionException e) {
+            throw new IOException("failed to generate edges", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private byte[] writeChunk(long first, long last, SplittableRandom random) {
+        StringBuilder lines = new StringBuilder((int) (last - first) * 24);
+
+        family.edges(first, last, random, (index, v1, v2) -> lines.append(v1).append(' ')
+                .append(v2).append(' ')
+                .append(weights.weightOf(index, random)).append('\n'));
+
+        return toBytes(lines.toString());
+    }
+
+    private static byte[] toBytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    interface EdgeSink {
+        void edge(long index, int v1, int v2);
+    }
+
+    /**
+     * A kind of graph. Vertex ids are in [1, vertexCount] and edges are numbered
+     * [0, edgeCount). A family must make the same edges for the same index range and
+     * random state no matter which thread asks.
+     */
+    interface Family {
+        int vertexCount();
+
+        long edgeCount();
+
+        void edges(long first, long last, SplittableRandom random, EdgeSink sink);
+    }
+
+    /**
+     * Every pair of vertices, in (v1, v2) order with v1 < v2.
+     */
+    static class Complete implements Family {
+        private final int n;
+
+        Complete(int numOfVertices) {
+            if (numOfVertices < 2)
+                throw new IllegalArgumentException("a complete graph needs at least 2 vertices");
+
+            n = numOfVertices;
+        }
+
+        public int vertexCount() {
+            return n;
+        }
+
+        public long edgeCount() {
+            return (long) n * (n - 1) / 2;
+        }
+
+        public void edges(long first, long last, SplittableRandom random, EdgeSink sink) {
+            int v1 = rowOf(first);
+            int v2 = (int) (v1 + 1 + first - rowStart(v1));
+
+            for (long index = first; index < last; index++) {
+                sink.edge(index, v1, v2);
+                if (++v2 > n) {
+                    v1++;
+                    v2 = v1 + 1;
+                }
+            }
+        }
+
+        /*
+        Row v holds the edges (v, v + 1) .. (v, n), so it starts after
+        sum of (n - r) for r in [1, v - 1] edges.
+         */
+        private long rowStart(long v) {
+            return (v - 1) * n - (v - 1) * v / 2;
+        }
+
+        private int rowOf(long index) {
+            double m = n - 0.5;
+            int v = (int) Math.max(1, Math.floor(m + 1 - Math.sqrt(m * m - 2.0 * index)));
+
+            while (v > 1 && rowStart(v) > index)
+                v--;
+            while (rowStart(v + 1) <= index)
+                v++;
+
+            return v;
+        }
+    }
+
+    /**
+     * Erdos-Renyi G(n, m): m edges between uniformly chosen distinct vertices. Pairs are
+     * drawn independently to keep memory constant, so a pair can repeat, which is rare
+     * when m is much smaller than n^2.
+     */
+    static class ErdosRenyi implements Family {
+        private final int n;
+        private final long m;
+
+        ErdosRenyi(int numOfVertices, long numOfEdges) {
+            if (numOfVertices < 2)
+                throw new IllegalArgumentException("a random graph needs at least 2 vertices");
+
+            n = numOfVertices;
+            m = numOfEdges;
+        }
+
+        public int vertexCount() {
+            return n;
+        }
+
+        public long edgeCount() {
+            return m;
+        }
+
+        public void edges(long first, long last, SplittableRandom random, EdgeSink sink) {
+            for (long index = first; index < last; index++) {
+                int v1 = random.nextInt(n) + 1;
+                int v2 = random.nextInt(n - 1) + 1;
+                if (v2 >= v1)
+                    v2++;
+
+                sink.edge(index, v1, v2);
+            }
+        }
+    }
+
+    /**
+     * A rows x cols grid where each vertex is joined to its right and lower neighbor,
+     * similar to a road network. All horizontal edges come first, then all vertical ones.
+     */
+    static class Grid implements Family {
+        private final int rows, cols;
+
+        Grid(int rows, int cols) {
+            if (rows < 1 || cols < 1 || (long) rows * cols < 2 || (long) rows * cols > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("a grid needs between 2 and Integer.MAX_VALUE vertices");
+
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        public int vertexCount() {
+            return rows * cols;
+        }
+
+        private long horizontalEdges() {
+            return (long) rows * (cols - 1);
+        }
+
+        public long edgeCount() {
+            return horizontalEdges() + (long) (rows - 1) * cols;
+        }
+
+        public void edges(long first, long last, SplittableRandom random, EdgeSink sink) {
+            for (long index = first; index < last; index++) {
+                if (index < horizontalEdges()) {
+                    long row = index / (cols - 1);
+                    int v = (int) (row * cols + index % (cols - 1)) + 1;
+                    sink.edge(index, v, v + 1);
+                } else {
+                    int v = (int) (index - horizontalEdges()) + 1;
+                    sink.edge(index, v, v + cols);
+                }
+            }
+        }
+    }
+
+    /**
+     * Chung-Lu style graph whose degrees follow a power law with the given exponent
+     * (greater than 2). Each end of an edge is vertex i with probability proportional to
+     * i^(-1 / (exponent - 1)), sampled by inverting the continuous approximation of that
+     * distribution, so vertex 1 is the biggest hub. Like ErdosRenyi, pairs can repeat.
+     */
+    static class PowerLaw implements Family {
+        private final int n;
+        private final long m;
+        private final double inverseShape;
+
+        PowerLaw(int numOfVertices, long numOfEdges, double exponent) {
+            if (numOfVertices < 2)
+                throw new IllegalArgumentException("a power law graph needs at least 2 vertices");
+            if (exponent <= 2)
+                throw new IllegalArgumentException("exponent must be greater than 2");
+
+            n = numOfVertices;
+            m = numOfEdges;
+            inverseShape = 1 / (1 - 1 / (exponent - 1));
+        }
+
+        public int vertexCount() {
+            return n;
+        }
+
+        public long edgeCount() {
+            return m;
+        }
+
+        public void edges(long first, long last, SplittableRandom random, EdgeSink sink) {
+            for (long index = first; index < last; index++) {
+                int v1 = sample(random);
+                int v2 = sample(random);
+                while (v2 == v1)
+                    v2 = sample(random);
+
+                sink.edge(index, v1, v2);
+            }
+        }
+
+        private int sample(SplittableRandom random) {
+            int v = (int) Math.ceil(n * Math.pow(random.nextDouble(), inverseShape));
+            return Math.max(1, Math.min(n, v));
+        }
+    }
+
+    /**
+     * How edge weights are chosen. All weights are positive.
+     */
+    interface Weights {
+        default void prepare(long edgeCount, SplittableRandom random) {
+        }
+
+        int weightOf(long edgeIndex, SplittableRandom random);
+    }
+
+    /**
+     * Uniform in [1, max].
+     */
+    static class Uniform implements Weights {
+        private final int max;
+
+        Uniform(int max) {
+            if (max < 1)
+                throw new IllegalArgumentException("max must be greater than zero");
+
+            this.max = max;
+        }
+
+        public int weightOf(long edgeIndex, SplittableRandom random) {
+            return random.nextInt(max) + 1;
+        }
+    }
+
+    /**
+     * 1 plus an exponentially distributed value with the given mean, rounded down. Many
+     * light edges and a few heavy ones.
+     */
+    static class Exponential implements Weights {
+        private final double mean;
+
+        Exponential(double mean) {
+            if (mean <= 0)
+                throw new IllegalArgumentException("mean must be greater than zero");
+
+            this.mean = mean;
+        }
+
+        public int weightOf(long edgeIndex, SplittableRandom random) {
+            double w = 1 - mean * Math.log(1 - random.nextDouble());
+            return (int) Math.min(Integer.MAX_VALUE, w);
+        }
+    }
+
+    /**
+     * Each weight in [1, edgeCount] used exactly once, like CompleteGraphGenerator, but
+     * without a shuffled list. Edge i gets its weight from a seeded Feistel network over
+     * the smallest even number of bits that holds edgeCount. The network is a permutation
+     * of that power of two range, so applying it again until the result is below edgeCount
+     * (cycle walking) gives a well mixed permutation of [0, edgeCount). The range is less
+     * than 4 * edgeCount, so that takes fewer than 4 tries on average.
+     */
+    static class Unique implements Weights {
+        private static final int ROUNDS = 4;
+
+        private final long[] keys = new long[ROUNDS];
+        private long edgeCount, halfMask;
+        private int halfBits;
+
+        public void prepare(long edgeCount, SplittableRandom random) {
+            if (edgeCount > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("unique weights need at most Integer.MAX_VALUE edges");
+
+            this.edgeCount = Math.max(1, edgeCount);
+            int bits = 64 - Long.numberOfLeadingZeros(this.edgeCount - 1);
+            halfBits = Math.max(1, (bits + 1) / 2);
+            halfMask = (1L << halfBits) - 1;
+
+            for (int round = 0; round < ROUNDS; round++)
+                keys[round] = random.nextLong();
+        }
+
+        public int weightOf(long edgeIndex, SplittableRandom random) {
+            long x = edgeIndex;
+            do {
+                x = permute(x);
+            } while (x >= edgeCount);
+
+            return (int) x + 1;
+        }
+
+        private long permute(long x) {
+            long left = x >>> halfBits;
+            long right = x & halfMask;
+
+            for (long key : keys) {
+                long next = left ^ (mix(right ^ key) & halfMask);
+                left = right;
+                right = next;
+            }
+            return left << halfBits | right;
+        }
+
+        /*
+        The SplitMix64 finalizer, which spreads every input bit over the whole result.
+         */
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    private static Weights parseWeights(String arg) {
+        String[] parts = arg.split(":");
+        switch (parts[0]) {
+            case "unique":
+                return new Unique();
+            case "uniform":
+                return new Uniform(Integer.parseInt(parts[1]));
+            case "exponential":
+                return new Exponential(Double.parseDouble(parts[1]));
+            default:
+                throw new IllegalArgumentException("unknown weights: " + arg);
+        }
+    }
+
+    private static Family parseFamily(String[] args, int at) {
+        switch (args[at]) {
+            case "complete":
+                return new Complete(Integer.parseInt(args[at + 1]));
+            case "random":
+                return new ErdosRenyi(Integer.parseInt(args[at + 1]), Long.parseLong(args[at + 2]));
+            case "grid":
+                return new Grid(Integer.parseInt(args[at + 1]), Integer.parseInt(args[at + 2]));
+            case "powerlaw":
+                return new PowerLaw(Integer.parseInt(args[at + 1]), Long.parseLong(args[at + 2]),
+                        Double.parseDouble(args[at + 3]));
+            default:
+                throw new IllegalArgumentException("unknown family: " + args[at]);
+        }
+    }
+
+    /**
+     * usage: GraphGenerator file seed weights family args...
+     * weights: unique | uniform:max | exponential:mean
+     * family: complete n | random n m | grid rows cols | powerlaw n m exponent
+     */
+    public static void main(String[] args) throws IOException {
+        GraphGenerator generator = new GraphGenerator(parseFamily(args, 3), parseWeights(args[2]),
+                Long.parseLong(args[1]));
+        generator.writeTo(new File(args[0]));
+    }
+}
@@ -0,0 +1,96 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GraphGeneratorTest {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Before
+    public void arrange() {
+        System.setOut(new PrintStream(out));
+    }
+
+    @Test
+    public void sameSeedGivesSameGraphOnAnyNumberOfThreads() throws IOException {
+        GraphGenerator.Family family = new GraphGenerator.ErdosRenyi(1000, 200000);
+
+        assertArrayEquals(generate(new GraphGenerator(family, new GraphGenerator.Uniform(100), 7, 1)),
+                generate(new GraphGenerator(family, new GraphGenerator.Uniform(100), 7, 4)));
+    }
+
+    @Test
+    public void canGenerateCompleteGraphWithUniqueWeights() throws IOException {
+        int n = 400;
+        byte[] graph = generate(new GraphGenerator(new GraphGenerator.Complete(n), new GraphGenerator.Unique(), 3));
+        Scanner edges = new Scanner(new ByteArrayInputStream(graph));
+        edges.nextLine(); // skip vertex count and source
+
+        int edgeCount = n * (n - 1) / 2;
+        boolean[] pairs = new boolean[(n + 1) * (n + 1)];
+        int[] weights = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int v1 = edges.nextInt(), v2 = edges.nextInt();
+            assertTrue(v1 < v2);
+            pairs[v1 * (n + 1) + v2] = true;
+            weights[i] = edges.nextInt();
+        }
+        assertEquals(0, edges.nextInt()); // sentinel
+
+        int pairCount = 0;
+        for (boolean pair : pairs)
+            if (pair)
+                pairCount++;
+        assertEquals(edgeCount, pairCount);
+
+        Arrays.sort(weights);
+        for (int i = 0; i < edgeCount; i++)
+            assertEquals(i + 1, weights[i]);
+    }
+
+    @Test
+    public void uniqueWeightsAreNotAFixedStride() {
+        GraphGenerator.Unique weights = new GraphGenerator.Unique();
+        weights.prepare(100000, new SplittableRandom(11));
+
+        Set<Integer> steps = new HashSet<>();
+        int previous = weights.weightOf(0, null);
+        for (long i = 1; i < 1000; i++) {
+            int weight = weights.weightOf(i, null);
+            steps.add(weight - previous);
+            previous = weight;
+        }
+        assertTrue(steps.size() > 900);
+    }
+
+    @Test
+    public void canProcessEveryFamily() throws IOException {
+        run(new GraphGenerator(new GraphGenerator.Complete(10), new GraphGenerator.Unique(), 1));
+        run(new GraphGenerator(new GraphGenerator.ErdosRenyi(50, 100), new GraphGenerator.Uniform(10), 2));
+        run(new GraphGenerator(new GraphGenerator.Grid(8, 9), new GraphGenerator.Exponential(5), 3));
+        run(new GraphGenerator(new GraphGenerator.PowerLaw(50, 100, 2.5), new GraphGenerator.Unique(), 4));
+    }
+
+    private void run(GraphGenerator generator) throws IOException {
+        Main program = new Main(new ByteArrayInputStream(generate(generator)));
+        program.run();
+        assertTrue(out.toString().contains("Minimal spanning tree length = "));
+        out.reset();
+    }
+
+    private byte[] generate(GraphGenerator generator) throws IOException {
+        ByteArrayOutputStream graph = new ByteArrayOutputStream();
+        generator.writeTo(graph);
+        return graph.toByteArray();
+    }
+}
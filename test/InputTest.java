@@ -72,6 +72,17 @@ public class InputTest {
         assertEquals(expectedOut, out.toString());
     }
 
+    @Test
+    public void canProcessDisconnectedInputWithMissingIDs() throws IOException {
+        File input = new File("test/testData/disconnectedIN.txt");
+        InputStream in = new FileInputStream(input);
+        Main program = new Main(in);
+        program.run();
+
+        String expectedOut = getOutputString("test/testData/disconnectedOUT.txt");
+        assertEquals(expectedOut, out.toString());
+    }
+
     @Test
     public void canProcessRandomCompleteGraph() {
         Random r = new Random();
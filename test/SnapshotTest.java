@@ -0,0 +1,67 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotTest {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    File snapshotDirectory;
+
+    @Before
+    public void arrange() throws IOException {
+        System.setOut(new PrintStream(out));
+        snapshotDirectory = Files.createTempDirectory("snapshots").toFile();
+    }
+
+    @Test
+    public void canReuseSnapshot() throws IOException {
+        String expectedOut = getOutputString("test/testData/p4d2out.txt");
+
+        runWithSnapshot("test/testData/p4d2in.txt");
+        assertEquals(expectedOut, out.toString());
+        assertEquals(1, snapshotDirectory.listFiles().length);
+
+        out.reset();
+        runWithSnapshot("test/testData/p4d2in.txt");
+        assertEquals(expectedOut, out.toString());
+    }
+
+    @Test
+    public void canRecomputeCorruptSnapshot() throws IOException {
+        runWithSnapshot("test/testData/p4d3in.txt");
+        File snapshot = snapshotDirectory.listFiles()[0];
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot.toPath(), bytes);
+
+        out.reset();
+        runWithSnapshot("test/testData/p4d3in.txt");
+        assertEquals(getOutputString("test/testData/p4d3out.txt"), out.toString());
+        assertTrue(snapshot.isFile());
+    }
+
+    @Test
+    public void canPrintResultsWhenSnapshotCannotBeSaved() throws IOException {
+        snapshotDirectory = File.createTempFile("snapshots", ".notADirectory");
+
+        runWithSnapshot("test/testData/p4d1in.txt");
+        assertEquals(getOutputString("test/testData/p4d1out.txt"), out.toString());
+    }
+
+    private void runWithSnapshot(String path) throws IOException {
+        InputStream in = new FileInputStream(new File(path));
+        Main program = new Main(in, snapshotDirectory);
+        program.run();
+    }
+
+    private String getOutputString(String path) throws IOException {
+        byte[] encoded = Files.readAllBytes(Paths.get(path));
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+}
@@ -1,7 +1,13 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class pathTest {
     private static final int numOfVertices = 7;
@@ -69,4 +75,82 @@ public class pathTest {
         g.getVertex(v).distance = d;
         pq.percolateUp(g.getVertex(v).heapIndex);
     }
+
+    @Test
+    public void canFindVerticesWithinRadius() {
+        List<Integer> settled = new ArrayList<>();
+        PathFinder pf = new PathFinder(g);
+        pf.findShortestPathsWithin(3, v -> settled.add(v.getID()));
+
+        assertEquals(5, settled.size());
+        assertEquals(1, (int) settled.get(0));
+        assertEquals(4, (int) settled.get(1));
+        assertEquals(2, (int) settled.get(2));
+        assertFalse(g.getVertex(6).isKnown);
+        assertFalse(g.getVertex(7).isKnown);
+    }
+
+    @Test
+    public void canWidenRadiusAfterNarrowQuery() {
+        List<Vertex> settled = new ArrayList<>();
+        PathFinder pf = new PathFinder(g);
+        pf.findShortestPathsWithin(4, settled::add);
+        assertEquals(5, settled.size());
+
+        settled.clear();
+        pf.findShortestPathsWithin(100, settled::add);
+
+        assertEquals(2, settled.size());
+        assertEquals(7, settled.get(0).getID());
+        assertEquals(5, settled.get(0).distance);
+        assertEquals(6, settled.get(1).getID());
+        assertEquals(6, settled.get(1).distance);
+    }
+
+    @Test
+    public void canFindKNearest() {
+        List<Vertex> settled = new ArrayList<>();
+        PathFinder pf = new PathFinder(g);
+        pf.findNearest(3, settled::add);
+
+        assertEquals(3, settled.size());
+        assertEquals(4, settled.get(1).getID());
+        assertEquals(1, settled.get(1).distance);
+        assertEquals(2, settled.get(2).getID());
+        assertEquals(1, settled.get(2).previous.getID());
+        assertFalse(g.getVertex(3).isKnown);
+    }
+
+    @Test
+    public void canComputeDistanceTable() {
+        DistanceTable table = new DistanceTable(g);
+
+        assertArrayEquals(new int[]{6, 3, 3, 5, 2, 2},
+                table.compute(new int[]{1, 4}, new int[]{6, 3, 5}));
+        assertArrayEquals(new int[]{2, 3, 8},
+                table.compute(new int[]{1, 4, 6}, new int[]{2}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cannotComputeDistanceTableLargerThanAnArray() {
+        int[] ids = new int[1 << 16];
+        Arrays.fill(ids, 1);
+        new DistanceTable(g).compute(ids, ids);
+    }
+
+    @Test
+    public void canFindKShortestPaths() {
+        List<Path> paths = new ArrayList<>();
+        KShortestPaths ksp = new KShortestPaths(g, 1, 6);
+        ksp.find(4, paths::add);
+
+        assertEquals(4, paths.size());
+        assertArrayEquals(new int[]{1, 4, 7, 6}, paths.get(0).getVertices());
+        assertEquals(6, paths.get(0).getCost());
+        assertArrayEquals(new int[]{1, 4, 3, 6}, paths.get(1).getVertices());
+        assertEquals(8, paths.get(1).getCost());
+        assertArrayEquals(new int[]{1, 3, 6}, paths.get(2).getVertices());
+        assertArrayEquals(new int[]{1, 4, 6}, paths.get(3).getVertices());
+        assertEquals(9, paths.get(3).getCost());
+    }
 }